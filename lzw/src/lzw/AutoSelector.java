@@ -0,0 +1,167 @@
+package lzw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AutoSelector – "auto" mode:
+ * - takes one contiguous sample from the middle of the input and estimates its entropy.
+ * - near-random data (already compressed, encrypted) is STORED as is - LZW would only grow it.
+ * - otherwise trial-compresses the sample with every algorithm × block size the sample can
+ * really measure (smaller than the sample, or "whole file" when the sample is the whole input).
+ * - of the candidates within 1% of the best ratio, the one with the least CPU time wins.
+ * - when the sample is the whole input, the winning trial's output is reused as the result.
+ * - the block size is the reset policy: every block is its own segment with a fresh dictionary.
+ * - the choice is stored in the segment tags, so decompression needs no user input.
+ */
+public class AutoSelector {
+
+    private static final int SAMPLE_SIZE = 512 * 1024; // bigger than every fixed block size
+    private static final int[] BLOCK_SIZES = { 64 * 1024, 256 * 1024, Integer.MAX_VALUE }; // MAX = one block
+    private static final byte[] ALGORITHMS = { SegmentFile.ALG_REGULAR, SegmentFile.ALG_IMPROVED };
+    private static final double STORE_ENTROPY = 7.9; // bits per byte
+    private static final double RATIO_TOLERANCE = 0.01;
+
+    // the selected algorithm and block size
+    public static class Choice {
+        public final byte algorithm;
+        public final int blockSize;
+        public final double entropy; // of the sample, bits per byte
+        public final double ratio; // of the trial, original / compressed
+        final List<byte[]> payloads; // the trial output, if the trial covered the whole input
+
+        Choice(byte algorithm, int blockSize, double entropy, double ratio, List<byte[]> payloads) {
+            this.algorithm = algorithm;
+            this.blockSize = blockSize;
+            this.entropy = entropy;
+            this.ratio = ratio;
+            this.payloads = payloads;
+        }
+
+        public String describe() {
+            String name = algorithm == SegmentFile.STORED ? "Stored"
+                    : algorithm == SegmentFile.ALG_IMPROVED ? "Improved LZW" : "Regular LZW";
+            String block = blockSize == Integer.MAX_VALUE ? "whole file" : (blockSize / 1024) + "KB";
+            return String.format("%s, block size %s (entropy %.2f bits/byte, trial ratio %.2f)",
+                    name, block, entropy, ratio);
+        }
+    }
+
+    // pick algorithm + block size from a sample of the text
+    public static Choice choose(String text) {
+        String sample = sample(text);
+        boolean wholeInput = sample.length() == text.length();
+        double entropy = entropy(sample);
+        if (sample.isEmpty() || entropy >= STORE_ENTROPY)
+            return new Choice(SegmentFile.STORED, Integer.MAX_VALUE, entropy, 1.0, null);
+
+        // ---- Trials: every measurable block size × algorithm ----
+        List<Choice> trials = new ArrayList<>();
+        List<Long> cpuTimes = new ArrayList<>();
+        int lastEffective = -1;
+        for (int blockSize : BLOCK_SIZES) {
+            // a block as big as the sample only says something if the sample is the whole input
+            if (!wholeInput && blockSize >= sample.length())
+                continue;
+            int effective = Math.min(blockSize, sample.length());
+            if (effective == lastEffective) // same blocks as the previous size - same result
+                continue;
+            lastEffective = effective;
+            int recorded = (wholeInput && effective == sample.length()) ? Integer.MAX_VALUE : blockSize;
+
+            for (byte algorithm : ALGORITHMS) {
+                long start = cpuTime();
+                List<byte[]> payloads = new ArrayList<>();
+                long compressed = 0;
+                for (String block : blocks(sample, blockSize)) {
+                    byte[] payload = SegmentFile.compress(block, algorithm).toByteArray();
+                    compressed += payload.length;
+                    payloads.add(payload);
+                }
+                cpuTimes.add(cpuTime() - start);
+                double ratio = (double) sample.length() / Math.max(1, compressed);
+                trials.add(new Choice(algorithm, recorded, entropy, ratio, wholeInput ? payloads : null));
+            }
+        }
+
+        // ---- Pick: cheapest of the candidates within the tolerance of the best ratio ----
+        double bestRatio = 0;
+        for (Choice trial : trials)
+            bestRatio = Math.max(bestRatio, trial.ratio);
+        if (bestRatio <= 1.0) // LZW doesn't shrink this data
+            return new Choice(SegmentFile.STORED, Integer.MAX_VALUE, entropy, 1.0, null);
+
+        Choice best = null;
+        long bestCpu = Long.MAX_VALUE;
+        for (int i = 0; i < trials.size(); i++) {
+            if (trials.get(i).ratio >= bestRatio * (1 - RATIO_TOLERANCE) && cpuTimes.get(i) < bestCpu) {
+                best = trials.get(i);
+                bestCpu = cpuTimes.get(i);
+            }
+        }
+        return best;
+    }
+
+    // compress the text as segments of the chosen block size
+    public static void compressToFile(File file, String originalName, String text, Choice choice)
+            throws IOException {
+        List<byte[]> payloads = choice.payloads; // the trial already compressed the whole input
+        if (payloads == null) {
+            List<String> blocks = blocks(text, choice.blockSize);
+            if (blocks.isEmpty())
+                blocks.add("");
+            payloads = new ArrayList<>(blocks.size());
+            for (String block : blocks) {
+                ByteArrayOutputStream compressed = SegmentFile.compress(block, choice.algorithm);
+                payloads.add(compressed.toByteArray());
+            }
+        }
+
+        byte[] tags = new byte[payloads.size()];
+        Arrays.fill(tags, choice.algorithm);
+        SegmentFile.create(file, originalName, tags, payloads);
+    }
+
+    // one contiguous region from the middle of the text (the whole text if it is small)
+    private static String sample(String text) {
+        if (text.length() <= SAMPLE_SIZE)
+            return text;
+        int from = (text.length() - SAMPLE_SIZE) / 2;
+        return text.substring(from, from + SAMPLE_SIZE);
+    }
+
+    private static List<String> blocks(String text, int blockSize) {
+        List<String> blocks = new ArrayList<>();
+        for (long from = 0; from < text.length(); from += blockSize)
+            blocks.add(text.substring((int) from, (int) Math.min(from + blockSize, text.length())));
+        return blocks;
+    }
+
+    // Shannon entropy of the byte histogram, in bits per byte
+    private static double entropy(String text) {
+        if (text.isEmpty())
+            return 0;
+        int[] counts = new int[256];
+        for (int i = 0; i < text.length(); i++)
+            counts[text.charAt(i) & 0xFF]++;
+        double entropy = 0;
+        for (int count : counts) {
+            if (count == 0)
+                continue;
+            double p = (double) count / text.length();
+            entropy -= p * Math.log(p) / Math.log(2);
+        }
+        return entropy;
+    }
+
+    private static long cpuTime() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported() ? bean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
@@ -80,6 +80,22 @@ public class BitManager {
         return v;
     }
 
+    // קריאה ישירה ממערך הבייטים (בלי לפרוס לרשימת ביטים); bits עד 32
+    // קוראים חלון של עד 5 בייטים בבת אחת (פי ~10 מהר יותר מביט-ביט); בייטים מעבר לסוף = 0
+    public static int readFixedBits(byte[] in, long fromBit, int bits) {
+        int index = (int) (fromBit >>> 3);
+        int offset = (int) (fromBit & 7);
+        int bytes = (offset + bits + 7) >>> 3;
+        long window = 0;
+        for (int b = 0; b < bytes; b++) {
+            window <<= 8;
+            if (index + b < in.length)
+                window |= in[index + b] & 0xFF;
+        }
+        int shift = bytes * 8 - offset - bits;
+        return (int) ((window >>> shift) & ((1L << bits) - 1));
+    }
+
     // כותרת רגילה: 4 ביט רוחב + 32 ביט מונה קודים
     // שימו לב: 0 בכותרת מייצג בפועל רוחב 16 ביט (מיפוי 16↔0 כדי להתאים ל-4 ביט).
     public static void writeHeader(List<Boolean> out, int bitsNeeded, int codeCount) {
@@ -94,4 +110,12 @@ public class BitManager {
         int codeCount = readFixedBits(in, 4, 32);
         return new int[] { bitsNeeded, codeCount };
     }
+
+    // אותה כותרת, ישירות ממערך הבייטים (צריך לפחות 5 בייטים)
+    public static int[] readHeader(byte[] in) {
+        int b = readFixedBits(in, 0, 4);
+        int bitsNeeded = (b == 0) ? 16 : b; // 0→16
+        int codeCount = readFixedBits(in, 4, 32);
+        return new int[] { bitsNeeded, codeCount };
+    }
 }
@@ -0,0 +1,154 @@
+package lzw;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * ChunkStore – local on-disk cache of compressed chunks:
+ * - every entry is one file named by the SHA-256 of the chunk text + the algorithm tag.
+ * - entry file: 1 byte format version + 4 byte CRC32 of the payload + payload. A damaged or
+ * stale entry fails the check on read, is deleted and counts as a miss.
+ * - the LRU order is kept in memory (loaded once from the files' modified times); a hit also
+ * refreshes the modified time, so the order survives to the next run.
+ * - when the total size passes the cap, least recently used entries are deleted until the
+ * store is down to the low-water mark (90% of the cap).
+ */
+public class ChunkStore {
+
+    public static final long DEFAULT_CAP = 64L * 1024 * 1024; // 64MB
+
+    private static final byte VERSION = 1;
+    private static final int ENTRY_HEADER = 5; // version + CRC32
+
+    private final File folder;
+    private final long capBytes;
+    private final long lowWaterBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // name → size
+    private long totalBytes;
+
+    public ChunkStore(File folder, long capBytes) {
+        this.folder = folder;
+        this.capBytes = capBytes;
+        this.lowWaterBytes = capBytes / 10 * 9;
+        folder.mkdirs(); // create if not exists
+
+        // leftovers of an interrupted put are never counted or evicted - remove them now
+        File[] leftovers = folder.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (leftovers != null) {
+            for (File f : leftovers)
+                f.delete();
+        }
+
+        File[] files = folder.listFiles((dir, name) -> !name.endsWith(".tmp"));
+        if (files == null)
+            files = new File[0];
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified(); // one stat per file, not per comparison
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+        for (int i : order) {
+            long length = files[i].length();
+            entries.put(files[i].getName(), length);
+            totalBytes += length;
+        }
+    }
+
+    // compressed bytes for this chunk, or null if not cached (or the entry is damaged)
+    public synchronized byte[] get(String hash, byte algorithm) {
+        String name = hash + "." + algorithm;
+        if (entries.get(name) == null) // also marks the entry as recently used
+            return null;
+        File f = new File(folder, name);
+        try {
+            byte[] data = Files.readAllBytes(f.toPath());
+            byte[] payload = data.length >= ENTRY_HEADER ? Arrays.copyOfRange(data, ENTRY_HEADER, data.length) : null;
+            if (payload == null || data[0] != VERSION || readInt(data, 1) != crc(payload)) {
+                remove(name);
+                return null;
+            }
+            f.setLastModified(System.currentTimeMillis()); // keep the order for the next run
+            return payload;
+        } catch (IOException e) { // unreadable entry - treat as a miss
+            remove(name);
+            return null;
+        }
+    }
+
+    // store the compressed bytes of a chunk, then evict if over the cap
+    public synchronized void put(String hash, byte algorithm, byte[] compressed) {
+        long length = ENTRY_HEADER + compressed.length;
+        if (length > lowWaterBytes)
+            return;
+        String name = hash + "." + algorithm;
+        byte[] data = new byte[(int) length];
+        data[0] = VERSION;
+        int crc = crc(compressed);
+        data[1] = (byte) (crc >>> 24);
+        data[2] = (byte) (crc >>> 16);
+        data[3] = (byte) (crc >>> 8);
+        data[4] = (byte) crc;
+        System.arraycopy(compressed, 0, data, ENTRY_HEADER, compressed.length);
+        File tmp = null;
+        try {
+            // write to a temp file and move, so a reader never sees half an entry
+            tmp = File.createTempFile(hash, ".tmp", folder);
+            Files.write(tmp.toPath(), data);
+            Files.move(tmp.toPath(), new File(folder, name).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) { // the cache is optional - just skip this entry
+            if (tmp != null)
+                tmp.delete(); // don't leave an uncounted file behind
+            return;
+        }
+        Long old = entries.put(name, length);
+        totalBytes += length - (old == null ? 0 : old);
+        if (totalBytes > capBytes)
+            evict();
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    // delete least recently used entries until we are down to the low-water mark
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > lowWaterBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            File f = new File(folder, eldest.getKey());
+            if (f.delete() || !f.exists()) {
+                totalBytes -= eldest.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(String name) {
+        Long length = entries.remove(name);
+        if (length != null)
+            totalBytes -= length;
+        new File(folder, name).delete();
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
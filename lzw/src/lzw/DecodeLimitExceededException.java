@@ -0,0 +1,25 @@
+package lzw;
+
+// thrown by the decoders when a DecodeLimits cap is passed
+public class DecodeLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String limit;
+    private final long value;
+
+    public DecodeLimitExceededException(String limit, long value) {
+        super("Decode limit exceeded: " + limit + " > " + value);
+        this.limit = limit;
+        this.value = value;
+    }
+
+    // which limit was passed, e.g. "output chars"
+    public String getLimit() {
+        return limit;
+    }
+
+    // the configured value of that limit
+    public long getValue() {
+        return value;
+    }
+}
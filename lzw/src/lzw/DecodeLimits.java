@@ -0,0 +1,89 @@
+package lzw;
+
+/**
+ * DecodeLimits – caps for decoding untrusted .lzw data:
+ * - output chars, dictionary entries (including the 256 base ones; Regular only creates entries
+ * its code width can reach), phrase length, total work (codes read + chars written) and wall time.
+ * - the decoders read codes straight from the input bytes, so apart from the input itself all
+ * memory is bounded by these caps.
+ * - a value of 0 or less means "no limit" for that field.
+ * - the decoders stop with DecodeLimitExceededException the moment any cap is passed, before
+ * the memory for it is allocated.
+ */
+public class DecodeLimits {
+
+    public static final DecodeLimits UNLIMITED = new DecodeLimits(0, 0, 0, 0, 0);
+
+    public final long maxOutputChars;
+    public final int maxDictionarySize;
+    public final int maxPhraseLength;
+    public final long maxWork;
+    public final long maxMillis;
+
+    public DecodeLimits(long maxOutputChars, int maxDictionarySize, int maxPhraseLength, long maxWork,
+            long maxMillis) {
+        this.maxOutputChars = maxOutputChars;
+        this.maxDictionarySize = maxDictionarySize;
+        this.maxPhraseLength = maxPhraseLength;
+        this.maxWork = maxWork;
+        this.maxMillis = maxMillis;
+    }
+
+    // a new budget for one decode call (shared by all segments of a file)
+    public Budget budget() {
+        return new Budget(this);
+    }
+
+    // running counters of one decode call, checked against the limits
+    public static class Budget {
+        public static final int CLOCK_EVERY = 4096; // work units between time checks
+
+        private final DecodeLimits limits;
+        private final long deadline;
+        private long outputChars;
+        private long work;
+        private long nextClockCheck = CLOCK_EVERY;
+
+        Budget(DecodeLimits limits) {
+            this.limits = limits;
+            this.deadline = limits.maxMillis > 0 ? System.nanoTime() + limits.maxMillis * 1_000_000 : 0;
+        }
+
+        // call before writing chars to the output
+        public void output(long chars) {
+            outputChars += chars;
+            if (limits.maxOutputChars > 0 && outputChars > limits.maxOutputChars)
+                throw new DecodeLimitExceededException("output chars", limits.maxOutputChars);
+            work(chars);
+        }
+
+        // call before adding an entry that makes the dictionary this big
+        public void dictionary(long size) {
+            if (limits.maxDictionarySize > 0 && size > limits.maxDictionarySize)
+                throw new DecodeLimitExceededException("dictionary size", limits.maxDictionarySize);
+        }
+
+        // call for every phrase (dictionary value) before it is built
+        public void phrase(long length) {
+            if (limits.maxPhraseLength > 0 && length > limits.maxPhraseLength)
+                throw new DecodeLimitExceededException("phrase length", limits.maxPhraseLength);
+        }
+
+        // only the clock - safe to call from several threads at once (used by ParallelRegularLZW)
+        public void checkTime() {
+            if (deadline != 0 && System.nanoTime() - deadline > 0)
+                throw new DecodeLimitExceededException("time (ms)", limits.maxMillis);
+        }
+
+        // count work units (codes read, chars written); also checks the clock now and then
+        public void work(long units) {
+            work += units;
+            if (limits.maxWork > 0 && work > limits.maxWork)
+                throw new DecodeLimitExceededException("work", limits.maxWork);
+            if (deadline != 0 && work >= nextClockCheck) {
+                nextClockCheck = work + CLOCK_EVERY;
+                checkTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package lzw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * DedupCompressor – content-defined chunking in front of the LZW codecs:
+ * - the text is cut into chunks where a rolling (gear) hash hits a pattern, so the same content
+ * gives the same chunks even if bytes were inserted or removed before it.
+ * - a chunk that already appeared in this file is written once; later copies are REFERENCE
+ * segments pointing to the first one.
+ * - a chunk found in the ChunkStore (checksum verified) is copied as is and skips the codec.
+ * - the output is a normal SegmentFile, so decompression needs nothing extra.
+ */
+public class DedupCompressor {
+
+    private static final int MIN_CHUNK = 4 * 1024;
+    private static final int MAX_CHUNK = 64 * 1024;
+    // 14 bits → a boundary every ~16KB after the 4KB minimum, so chunks average ~20KB
+    private static final long BOUNDARY_MASK = 0xFFFC000000000000L;
+
+    // random (but fixed) value per byte for the gear hash
+    private static final long[] GEAR = new long[256];
+    static {
+        Random random = new Random(0x4C5A57L);
+        for (int i = 0; i < 256; i++)
+            GEAR[i] = random.nextLong();
+    }
+
+    // counters of the last compress call (for the GUI log)
+    public static class Stats {
+        public int chunks;
+        public int repeated; // referenced inside the file
+        public int cacheHits; // taken from the chunk store
+    }
+
+    // cut the text into content-defined chunks
+    public static List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        long hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash << 1) + GEAR[text.charAt(i) & 0xFF];
+            int length = i + 1 - start;
+            if ((length >= MIN_CHUNK && (hash & BOUNDARY_MASK) == 0) || length >= MAX_CHUNK) {
+                chunks.add(text.substring(start, i + 1));
+                start = i + 1;
+                hash = 0;
+            }
+        }
+        if (start < text.length())
+            chunks.add(text.substring(start));
+        return chunks;
+    }
+
+    // compress the text chunk by chunk into a SegmentFile
+    public static Stats compressToFile(File file, String originalName, String text, byte algorithm,
+            ChunkStore store) throws IOException {
+        Stats stats = new Stats();
+        List<String> chunks = split(text);
+        if (chunks.isEmpty())
+            chunks.add(""); // keep one (empty) segment like a plain compress
+
+        byte[] tags = new byte[chunks.size()];
+        List<byte[]> payloads = new ArrayList<>(chunks.size());
+        Map<String, Integer> firstSegment = new HashMap<>(); // hash → segment index in this file
+
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            String hash = sha256(chunk);
+            stats.chunks++;
+
+            Integer earlier = firstSegment.get(hash);
+            if (earlier != null) { // repeated chunk - only a reference
+                tags[i] = SegmentFile.REFERENCE;
+                payloads.add(SegmentFile.reference(earlier));
+                stats.repeated++;
+                continue;
+            }
+            firstSegment.put(hash, i);
+
+            // STORED chunks are raw copies - caching them would only push out useful entries
+            boolean cacheable = store != null && algorithm != SegmentFile.STORED;
+            byte[] compressed = cacheable ? store.get(hash, algorithm) : null;
+            if (compressed != null) {
+                stats.cacheHits++;
+            } else {
+                ByteArrayOutputStream out = SegmentFile.compress(chunk, algorithm);
+                compressed = out.toByteArray();
+                if (cacheable)
+                    store.put(hash, algorithm, compressed);
+            }
+            tags[i] = algorithm;
+            payloads.add(compressed);
+        }
+
+        SegmentFile.create(file, originalName, tags, payloads);
+        return stats;
+    }
+
+    // strong hash of the chunk text, as hex
+    private static String sha256(String chunk) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(chunk.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash)
+                hex.append(String.format("%02x", b & 0xFF));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) { // SHA-256 is always available in the JDK
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -80,59 +80,81 @@ public class ImprovedLZW {
 
     /* ================= Decompress ================= */
     public static String Decompress(ByteArrayOutputStream compressed) {
-        List<Boolean> bits = byteStreamToBitStream(compressed);
-        if (bits.size() < 36)
+        return Decompress(compressed, DecodeLimits.UNLIMITED);
+    }
+
+    // כמו Decompress, אבל עוצר עם DecodeLimitExceededException כשעוברים מגבלה
+    public static String Decompress(ByteArrayOutputStream compressed, DecodeLimits limits) {
+        return Decompress(compressed, limits.budget());
+    }
+
+    static String Decompress(ByteArrayOutputStream compressed, DecodeLimits.Budget budget) {
+        // קוראים ביטים ישירות מהבייטים - הזיכרון לא תלוי ברשימת ביטים בגודל הקלט
+        byte[] data = compressed.toByteArray();
+        long totalBits = data.length * 8L;
+        if (totalBits < 36)
             return "";
 
-        int[] hdr = readHeader(bits);
+        int[] hdr = readHeader(data);
         int readBits = hdr[0]; // מצופה 9
         int codeCount = hdr[1];
         if (readBits <= 0 || codeCount <= 0)
             return "";
 
-        // קוראים את הקודים אחד-אחד ברוחב משתנה (מסונכרן עם ההצפנה)
-        int cursor = 36;
+        // לא סומכים על המונה בכותרת: לכל קוד צריך לפחות START_BITS ביטים בזרם
+        if (codeCount > (totalBits - 36) / START_BITS)
+            return "";
+
+        // קוראים את הקודים אחד-אחד ברוחב משתנה (מסונכרן עם ההצפנה) ומפענחים מיד
+        long cursor = 36;
         int growAt = (1 << readBits);
         int simulatedNext = FIRST_FREE;
 
-        List<Integer> codes = new ArrayList<>(codeCount);
+        // דקומפרסיה רגילה לפי הקודים (כמו Regular)
+        Map<Integer, String> dict = new HashMap<>();
+        for (int i = 0; i < 256; i++)
+            dict.put(i, String.valueOf((char) i));
+        int nextCode = FIRST_FREE;
+
+        String w = null;
+        StringBuilder out = new StringBuilder();
         for (int i = 0; i < codeCount; i++) {
-            if (cursor + readBits > bits.size())
+            if (cursor + readBits > totalBits)
                 return "";
-            int code = readFixedBits(bits, cursor, readBits);
+            budget.work(1);
+            int k = readFixedBits(data, cursor, readBits);
             cursor += readBits;
-            codes.add(code);
 
             simulatedNext++;
             if (simulatedNext == growAt) {
                 readBits++;
                 growAt = (1 << readBits);
             }
-        }
-
-        // דקומפרסיה רגילה לפי הקודים (כמו Regular)
-        Map<Integer, String> dict = new HashMap<>();
-        for (int i = 0; i < 256; i++)
-            dict.put(i, String.valueOf((char) i));
-        int nextCode = FIRST_FREE;
 
-        Iterator<Integer> it = codes.iterator();
-        String w = dict.get(it.next());
-        if (w == null)
-            return "";
-        StringBuilder out = new StringBuilder(w);
+            if (w == null) { // הקוד הראשון
+                w = dict.get(k);
+                if (w == null)
+                    return "";
+                budget.output(w.length());
+                out.append(w);
+                continue;
+            }
 
-        while (it.hasNext()) {
-            int k = it.next();
+            // בודקים מגבלות לפני שמקצים משהו לצעד הזה
+            String known = dict.get(k);
+            budget.phrase(known != null ? known.length() : w.length() + 1);
+            budget.phrase(w.length() + 1);
+            budget.dictionary(dict.size() + 1L);
             String entry;
-            if (dict.containsKey(k)) {
-                entry = dict.get(k);
+            if (known != null) {
+                entry = known;
             } else if (k == nextCode) {
                 entry = w + w.charAt(0);
             } else {
                 return ""; // זרימה לא תקינה
             }
 
+            budget.output(entry.length());
             out.append(entry);
             dict.put(nextCode++, w + entry.charAt(0));
             w = entry;
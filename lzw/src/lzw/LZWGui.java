@@ -13,9 +13,12 @@ public class LZWGui extends JFrame {
 
     private final JRadioButton regular = new JRadioButton("Regular LZW", true);
     private final JRadioButton improved = new JRadioButton("Improved LZW");
+    private final JRadioButton auto = new JRadioButton("Auto");
+    private final JCheckBox dedup = new JCheckBox("Dedup cache");
 
     private final JButton btnCompress = new JButton("Compress");
     private final JButton btnDecompress = new JButton("Decompress");
+    private final JButton btnAppend = new JButton("Append");
 
     private final JTextArea outputArea = new JTextArea(12, 70);
 
@@ -49,10 +52,13 @@ public class LZWGui extends JFrame {
         ButtonGroup groupOfButtons = new ButtonGroup(); // group for radio buttons
         groupOfButtons.add(regular);
         groupOfButtons.add(improved);
+        groupOfButtons.add(auto);
         JPanel algRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         algRow.add(new JLabel("Algorithm:"));
         algRow.add(regular);
         algRow.add(improved);
+        algRow.add(auto);
+        algRow.add(dedup);
 
         top.add(inputRow);
         top.add(outputRow);
@@ -61,6 +67,7 @@ public class LZWGui extends JFrame {
         JPanel middle = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0)); // middle section: buttons
         middle.add(btnCompress);
         middle.add(btnDecompress);
+        middle.add(btnAppend);
 
         // bottom section: output area (read-only + scrollable)
         outputArea.setEditable(false);
@@ -97,6 +104,7 @@ public class LZWGui extends JFrame {
     private void wireEvents() {
         btnCompress.addActionListener(event -> onAction(true));
         btnDecompress.addActionListener(event -> onAction(false));
+        btnAppend.addActionListener(event -> onAppend());
     }
 
     // get file extension in lower case, or "" if none
@@ -157,9 +165,13 @@ public class LZWGui extends JFrame {
             return new File(compFolder, base + ".lzw");
         }
 
-        //try to recover original extension from a simple LZWM header we wrote in compress
+        //try to recover original extension from the LZWS/LZWM header we wrote in compress
         try {
             byte[] data = Files.readAllBytes(inputFile.toPath());
+            String segmentedName = SegmentFile.readName(data);
+            if (segmentedName != null && !extensionName(segmentedName).isEmpty()) {
+                return new File(decFolder, base + "." + extensionName(segmentedName));
+            }
             if (data.length >= 6 && data[0] == 'L' && data[1] == 'Z' && data[2] == 'W' && data[3] == 'M') {
                 int nameLength = ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
                 if (data.length >= 6 + nameLength) {
@@ -187,28 +199,7 @@ public class LZWGui extends JFrame {
     private void setBusy(boolean busy) {
         btnCompress.setEnabled(!busy);
         btnDecompress.setEnabled(!busy);
-    }
-
-    // build header: magic + name length + original name
-    private byte[] makeHeader(String fileName) {
-        byte[] nameBytes = fileName.getBytes(StandardCharsets.ISO_8859_1);
-
-        final int MAX_LEN = 65535;
-        if (nameBytes.length > MAX_LEN) {
-            nameBytes = java.util.Arrays.copyOf(nameBytes, MAX_LEN);
-        }
-
-        ByteArrayOutputStream byteOutStream = new ByteArrayOutputStream();
-
-        byte[] sign = new byte[] { 'L', 'Z', 'W', 'M' };
-        byteOutStream.write(sign, 0, sign.length);
-
-        int length = nameBytes.length;
-        byteOutStream.write((length >>> 8) & 0xFF);
-        byteOutStream.write(length & 0xFF);
-        byteOutStream.write(nameBytes, 0, length);// write the file name bytes
-
-        return byteOutStream.toByteArray();
+        btnAppend.setEnabled(!busy);
     }
 
     // small class to hold LZW header information
@@ -224,6 +215,10 @@ public class LZWGui extends JFrame {
 
     // read the LZW header or return a default one if not found
     private LzwHeader readHeaderOrDefault(byte[] data, File lzwFile) {
+        String segmentedName = SegmentFile.readName(data);
+        if (segmentedName != null) { // appendable file - segments start after the name + count + end offset
+            return new LzwHeader(segmentedName, 6 + segmentedName.length() + 12);
+        }
         if (data.length >= 6 && data[0] == 'L' && data[1] == 'Z' && data[2] == 'W' && data[3] == 'M') {
             int nameLength = ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
             if (nameLength >= 0 && data.length >= 6 + nameLength) {
@@ -238,6 +233,8 @@ public class LZWGui extends JFrame {
     private void onAction(boolean isCompress) {
         String input = inputPath.getText().trim();
         boolean isImproved = improved.isSelected(); //true for Improved LZW, false for Regular
+        boolean isAuto = auto.isSelected(); //pick algorithm and block size from a sample
+        boolean useDedup = dedup.isSelected(); //chunk dedup cache in front of the compressor
 
         if (input.isEmpty()) { //check if input is empty
             JOptionPane.showMessageDialog(this, "Please select an input file.\n",
@@ -279,25 +276,39 @@ public class LZWGui extends JFrame {
                         byte[] data = Files.readAllBytes(inputFile.toPath()); //read all bytes from input file
                         String text = new String(data, StandardCharsets.ISO_8859_1); //convert bytes to string
 
-                        publish("Compressing with " + (isImproved ? "Improved LZW" : "Regular LZW \n"));
-                        ByteArrayOutputStream compressed = isImproved ? lzw.ImprovedLZW.Compress(text) : lzw.RegularLZW.Compress(text); //compress the text with the selected algorithm
-
-                        //create header with original file name
                         String originalName = inputFile.getName();
-                        byte[] header = makeHeader(originalName);
-
-
                         String base = baseName(originalName);
-                        String algTag = isImproved ? "improved" : "regular";
+                        String algTag = isAuto ? "auto" : isImproved ? "improved" : "regular";
                         File outFolder = createOutputFolder(true); //create output folder for compressed files
                         File outFile = new File(outFolder, base + "_" + algTag + ".lzw");
                         outFile = makeUnique(outFile); //make sure the file name is unique
 
-                        publish("Writing .lzw file with metadata to:" + outFile.getAbsolutePath() + "\n");
-                        try (FileOutputStream fileOutStream = new FileOutputStream(outFile)) {
-                            fileOutStream.write(header); //write the header
-                            fileOutStream.write(compressed.toByteArray()); //write the compressed data
+                        byte algorithm = isImproved ? SegmentFile.ALG_IMPROVED : SegmentFile.ALG_REGULAR;
+                        AutoSelector.Choice choice = null;
+                        if (isAuto) { //trial-compress a sample; the choice is saved in the segment tags
+                            publish("Sampling input to choose the algorithm .. \n");
+                            choice = AutoSelector.choose(text);
+                            algorithm = choice.algorithm;
+                            publish("Auto: " + choice.describe() + "\n");
                         }
+
+                        if (useDedup) { //chunk the input, reuse repeated and cached chunks
+                            publish("Compressing chunks.. \n");
+                            ChunkStore store = new ChunkStore(new File("Outputs", "ChunkCache"), ChunkStore.DEFAULT_CAP);
+                            DedupCompressor.Stats stats = DedupCompressor.compressToFile(outFile, originalName, text,
+                                    algorithm, store);
+                            publish("Chunks: " + stats.chunks + ", repeated: " + stats.repeated
+                                    + ", from cache: " + stats.cacheHits + "\n");
+                        } else if (choice != null) {
+                            AutoSelector.compressToFile(outFile, originalName, text, choice);
+                        } else {
+                            publish("Compressing with " + (isImproved ? "Improved LZW" : "Regular LZW \n"));
+                            ByteArrayOutputStream compressed = SegmentFile.compress(text, algorithm); //compress the text with the selected algorithm
+
+                            //appendable file: header with original file name + the first segment
+                            SegmentFile.create(outFile, originalName, algorithm, compressed);
+                        }
+                        publish("Wrote .lzw file with metadata to:" + outFile.getAbsolutePath() + "\n");
                         outputPath.setText(outFile.getAbsolutePath());
                         publish("Done. \n Output: " + outFile.getAbsolutePath());
 
@@ -311,23 +322,31 @@ public class LZWGui extends JFrame {
                         LzwHeader metaHeader = readHeaderOrDefault(allBytes, inFile);
                         String originalName = metaHeader.name;
 
-                        //reads the data after the header
-                        byte[] decodedData = new byte[allBytes.length - metaHeader.offset];
-                        System.arraycopy(allBytes, metaHeader.offset, decodedData, 0, decodedData.length);
-                        ByteArrayOutputStream inStream = new ByteArrayOutputStream(); //write the data to a stream
-                        inStream.write(decodedData);
-
-                        publish("Decompressing with " + (isImproved ? "Improved LZW" : "Regular LZW") + ".. \n");
-                        String text = isImproved
-                                ? lzw.ImprovedLZW.Decompress(inStream)
-                                : lzw.RegularLZW.Decompress(inStream); //decompress the data with the selected algorithm
-
+                        //appendable file: every segment records its own algorithm
+                        String text;
+                        if (SegmentFile.isSegmented(allBytes)) {
+                            publish("Decompressing segments.. \n");
+                            text = SegmentFile.decompressAll(allBytes);
+                        } else {
+                            //reads the data after the header
+                            byte[] decodedData = new byte[allBytes.length - metaHeader.offset];
+                            System.arraycopy(allBytes, metaHeader.offset, decodedData, 0, decodedData.length);
+                            ByteArrayOutputStream inStream = new ByteArrayOutputStream(); //write the data to a stream
+                            inStream.write(decodedData);
+
+                            publish("Decompressing with " + (isImproved ? "Improved LZW" : "Regular LZW") + ".. \n");
+                            text = isImproved
+                                    ? lzw.ImprovedLZW.Decompress(inStream)
+                                    : lzw.ParallelRegularLZW.Decompress(inStream); //decompress the data with the selected algorithm
+                        }
 
                         File outDir = createOutputFolder(false); //create output folder for decoded files
                         String baseLzw = baseName(inFile.getName());
                         String origExt = extensionName(originalName);
-                        String algTag = isImproved ? "improved" : "regular";
-                        String finalName = baseLzw + "_" + algTag + "." + (origExt.isEmpty() ? "decoded" : origExt);
+                        //appendable files record the algorithm per segment, so the radio button says nothing about them
+                        String algTag = SegmentFile.isSegmented(allBytes) ? ""
+                                : "_" + (isImproved ? "improved" : "regular");
+                        String finalName = baseLzw + algTag + "." + (origExt.isEmpty() ? "decoded" : origExt);
                         File outFile = new File(outDir, finalName);
                         outFile = makeUnique(outFile); //make sure the file name is unique
 
@@ -358,4 +377,66 @@ public class LZWGui extends JFrame {
         };
         worker.execute();
     }
+
+    // append the input file as a new segment to the .lzw file in the output field (no recompression of old data)
+    private void onAppend() {
+        String input = inputPath.getText().trim();
+        String target = outputPath.getText().trim();
+        boolean isImproved = improved.isSelected();
+        boolean isAuto = auto.isSelected();
+
+        if (input.isEmpty() || target.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please select the new data as input and an existing .lzw file as output.\n",
+                    "Missing file", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        File targetFile = new File(target);
+        if (!extensionName(targetFile.getName()).equals("lzw") || !targetFile.isFile()) {
+            JOptionPane.showMessageDialog(this, "To append, choose an existing .lzw file as output.\n",
+                    "Wrong file type", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        setBusy(true);
+        outputArea.setText("");
+        final String selectedInput = input;
+
+        SwingWorker<Void, String> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() {
+                try {
+                    publish("Reading data from file .. \n");
+                    byte[] data = Files.readAllBytes(new File(selectedInput).toPath());
+                    String text = new String(data, StandardCharsets.ISO_8859_1);
+
+                    byte algorithm = isImproved ? SegmentFile.ALG_IMPROVED : SegmentFile.ALG_REGULAR;
+                    if (isAuto) { //only the algorithm is used - the new data is one segment
+                        AutoSelector.Choice choice = AutoSelector.choose(text);
+                        algorithm = choice.algorithm;
+                        publish("Auto: " + choice.describe() + "\n");
+                    }
+                    publish("Compressing new data .. \n");
+                    SegmentFile.append(targetFile, algorithm, SegmentFile.compress(text, algorithm));
+                    publish("Done. \n Appended to: " + targetFile.getAbsolutePath());
+                } catch (Throwable ex) {
+                    publish("Error: " + ex);
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(LZWGui.this, ex.toString(),
+                            "Error", JOptionPane.ERROR_MESSAGE));
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(java.util.List<String> chunks) {
+                for (String s : chunks)
+                    outputArea.append(s + "\n");
+            }
+
+            @Override
+            protected void done() {
+                setBusy(false);
+            }
+        };
+        worker.execute();
+    }
 }
@@ -0,0 +1,197 @@
+package lzw;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import static lzw.BitManager.*;
+
+/**
+ * ParallelRegularLZW – multi-core decoder for the existing RegularLZW format (same output as
+ * RegularLZW.Decompress):
+ * - all codes have the same width, so every thread can read its own range of codes directly.
+ * - dictionary entry 256+i-1 is created at step i from: parent = code[i-1] and
+ * last char = first char of code[i]. So only lengths, first chars and parents are needed -
+ * never the strings themselves.
+ * - phase 1: every thread resolves the entries of its range; entries that depend on an earlier
+ * range are deferred and resolved afterwards in order (their parents are always smaller).
+ * - phase 2: prefix sums of the phrase lengths give each code its place in one output buffer,
+ * and the threads write the phrases (following parents backwards) at the same time.
+ * - the output cap is checked against the code count (every code writes at least one char)
+ * before any array is allocated, and against the exact length before the output buffer is;
+ * the clock is also checked inside every thread's loop.
+ */
+public class ParallelRegularLZW {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 15; // below this many codes - sequential
+    private static final int FIRST_FREE = 256;
+    private static final int CODE_LIMIT = 1 << 16; // codes are at most 16 bits wide
+    private static final int MAX_OUTPUT = Integer.MAX_VALUE - 8; // largest array the VM can give
+
+    public static String Decompress(ByteArrayOutputStream compressed) {
+        return Decompress(compressed, DecodeLimits.UNLIMITED);
+    }
+
+    // same as Decompress, but stops with DecodeLimitExceededException when a limit is passed
+    public static String Decompress(ByteArrayOutputStream compressed, DecodeLimits limits) {
+        return Decompress(compressed, limits.budget());
+    }
+
+    static String Decompress(ByteArrayOutputStream compressed, DecodeLimits.Budget budget) {
+        byte[] data = compressed.toByteArray();
+        long totalBits = data.length * 8L;
+        if (totalBits < 36)
+            return "";
+
+        // Header: [bitsNeeded, codeCount] (0 in the width field already means 16)
+        int[] hdr = readHeader(data);
+        int bitsNeeded = hdr[0];
+        int codeCount = hdr[1];
+        if (codeCount <= 0 || codeCount > (totalBits - 36) / bitsNeeded)
+            return "";
+        if (codeCount < PARALLEL_THRESHOLD)
+            return RegularLZW.Decompress(compressed, budget);
+
+        int n = codeCount;
+        budget.work(n);
+        // every code writes at least one char - check the output cap before any array is allocated
+        budget.output(n);
+        int parts = Math.max(1, Math.min(n / 4096, Runtime.getRuntime().availableProcessors() * 4));
+        final int width = bitsNeeded;
+
+        // ---- Read all codes (parallel, fixed width → known offsets) ----
+        int[] codes = new int[n];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            int from = rangeStart(part, parts, n), to = rangeStart(part + 1, parts, n);
+            for (int i = from; i < to; i++) {
+                if ((i - from) % DecodeLimits.Budget.CLOCK_EVERY == 0)
+                    budget.checkTime();
+                codes[i] = readFixedBits(data, 36 + (long) i * width, width);
+            }
+        });
+        if (codes[0] >= FIRST_FREE)
+            return ""; // same as the sequential decoder
+
+        // Unknown code at step i is decoded as the entry being created (w + first char of w)
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            int from = Math.max(1, rangeStart(part, parts, n)), to = rangeStart(part + 1, parts, n);
+            for (int i = from; i < to; i++) {
+                if (codes[i] >= FIRST_FREE + i - 1)
+                    codes[i] = FIRST_FREE + i - 1;
+            }
+        });
+
+        // ---- Phase 1: lengths, first chars and parents of the dictionary entries ----
+        // only entries below 2^16 can ever be referenced
+        int steps = (int) Math.min(n, CODE_LIMIT - FIRST_FREE + 1L); // steps 1..steps-1 create entries
+        int size = FIRST_FREE + steps - 1;
+        int[] parent = new int[size];
+        int[] length = new int[size];
+        byte[] first = new byte[size];
+        byte[] last = new byte[size];
+        boolean[] resolved = new boolean[size];
+        for (int c = 0; c < FIRST_FREE; c++) {
+            length[c] = 1;
+            first[c] = (byte) c;
+            last[c] = (byte) c;
+            resolved[c] = true;
+        }
+
+        int entryParts = Math.max(1, Math.min(parts, steps / 4096));
+        List<List<Integer>> deferred = new ArrayList<>();
+        for (int part = 0; part < entryParts; part++)
+            deferred.add(new ArrayList<>());
+
+        IntStream.range(0, entryParts).parallel().forEach(part -> {
+            int from = Math.max(1, rangeStart(part, entryParts, steps)), to = rangeStart(part + 1, entryParts, steps);
+            int ownFirst = FIRST_FREE + from - 1; // first entry of this range
+            List<Integer> later = deferred.get(part);
+            for (int i = from; i < to; i++) {
+                int e = FIRST_FREE + i - 1;
+                int p = codes[i - 1];
+                int k = codes[i];
+                parent[e] = p;
+                // only base entries and resolved entries of this range may be read here
+                if (!known(p, ownFirst, resolved)) {
+                    later.add(i);
+                    continue;
+                }
+                length[e] = length[p] + 1;
+                first[e] = first[p];
+                if (k == e) {
+                    last[e] = first[e];
+                } else if (known(k, ownFirst, resolved)) {
+                    last[e] = first[k];
+                } else {
+                    later.add(i);
+                    continue;
+                }
+                resolved[e] = true;
+            }
+        });
+
+        // deferred entries in increasing order - everything they depend on is done by then
+        for (List<Integer> later : deferred) {
+            for (int i : later) {
+                int e = FIRST_FREE + i - 1;
+                int p = parent[e];
+                length[e] = length[p] + 1;
+                first[e] = first[p];
+                last[e] = first[codes[i]];
+                resolved[e] = true;
+            }
+        }
+
+        // ---- Prefix sums: where every phrase starts in the output ----
+        int[] offset = new int[n + 1];
+        long total = 0;
+        long maxPhrase = 0;
+        for (int i = 0; i < n; i++) {
+            int phrase = length[codes[i]];
+            total += phrase;
+            if (total > MAX_OUTPUT) { // a configured cap is reported first; else it can't fit one String
+                budget.output(total - n);
+                throw new DecodeLimitExceededException("output chars", MAX_OUTPUT);
+            }
+            offset[i + 1] = (int) total;
+            // the sequential decoder also checks every new (reachable) entry: previous phrase + 1 char
+            boolean grows = i < n - 1 && FIRST_FREE + i < (1 << width);
+            maxPhrase = Math.max(maxPhrase, grows ? phrase + 1 : phrase);
+        }
+
+        // same checks as the sequential decoder, before the output is allocated
+        budget.phrase(maxPhrase);
+        // entries from 2^bitsNeeded on are never used (and never created by the sequential decoder)
+        budget.dictionary(Math.min(FIRST_FREE + n - 1L, 1L << bitsNeeded));
+        budget.output(total - n); // n chars were already counted up front
+
+        // ---- Phase 2: write all phrases into one buffer at the same time ----
+        byte[] out = new byte[(int) total];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            int from = rangeStart(part, parts, n), to = rangeStart(part + 1, parts, n);
+            for (int i = from; i < to; i++) {
+                if ((i - from) % DecodeLimits.Budget.CLOCK_EVERY == 0)
+                    budget.checkTime();
+                int c = codes[i];
+                int pos = offset[i] + length[c] - 1;
+                // the phrase is its parent's phrase + last char, so write it back to front
+                while (c >= FIRST_FREE) {
+                    out[pos--] = last[c];
+                    c = parent[c];
+                }
+                out[pos] = (byte) c;
+            }
+        });
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    // a code can be read by a phase 1 thread if it is a base entry or already resolved in its own range
+    private static boolean known(int code, int ownFirst, boolean[] resolved) {
+        return code < FIRST_FREE || (code >= ownFirst && resolved[code]);
+    }
+
+    private static int rangeStart(int part, int parts, int count) {
+        return (int) ((long) count * part / parts);
+    }
+}
@@ -66,32 +66,37 @@ public class RegularLZW {
     }
 
     public static String Decompress(ByteArrayOutputStream compressed) {
-        // Convert bytes back to bits; minimal header length check (36 bits)
-        List<Boolean> allBits = byteStreamToBitStream(compressed);
-        if (allBits.size() < 36)
+        return Decompress(compressed, DecodeLimits.UNLIMITED);
+    }
+
+    // same as Decompress, but stops with DecodeLimitExceededException when a limit is passed
+    public static String Decompress(ByteArrayOutputStream compressed, DecodeLimits limits) {
+        return Decompress(compressed, limits.budget());
+    }
+
+    static String Decompress(ByteArrayOutputStream compressed, DecodeLimits.Budget budget) {
+        // Read bits straight from the bytes (no bit list); minimal header length check (36 bits)
+        byte[] data = compressed.toByteArray();
+        long totalBits = data.length * 8L;
+        if (totalBits < 36)
             return "";
 
-        // Read header: [bitsNeeded, codeCount]
-        int[] hdr = readHeader(allBits);
+        // Read header: [bitsNeeded, codeCount] (0 in the width field already means 16)
+        int[] hdr = readHeader(data);
         int bitsNeeded = hdr[0];
         int codeCount = hdr[1];
 
-        // Compatibility: if header wrote 0 for width (since 16 didn't fit in 4 bits),
-        // treat as 16
-        if (bitsNeeded == 0)
-            bitsNeeded = 16;
-
         if (bitsNeeded <= 0 || codeCount < 0)
             return "";
         if (codeCount == 0)
             return "";
-
-        // Slice out data bits and decode them into integer codes
-        List<Boolean> dataBits = allBits.subList(36, allBits.size());
-        List<Integer> codes = BitStreamToIntegerArray(dataBits, bitsNeeded, codeCount);
-        if (codes.isEmpty())
+        // don't trust the header: the codes must actually be in the stream
+        if (codeCount > (totalBits - 36) / bitsNeeded)
             return "";
 
+        // Codes are at most bitsNeeded wide, so entries from 2^bitsNeeded on can never be used
+        int codeLimit = 1 << bitsNeeded;
+
         // Initialize reverse dictionary with 0..255 single-byte strings
         int nextCode = 256;
         Map<Integer, String> dict = new HashMap<>();
@@ -99,21 +104,36 @@ public class RegularLZW {
             dict.put(i, String.valueOf((char) i));
 
         // Seed with the first code
-        Iterator<Integer> it = codes.iterator();
-        String w = dict.get(it.next());
+        long cursor = 36;
+        budget.work(1);
+        String w = dict.get(readFixedBits(data, cursor, bitsNeeded));
+        cursor += bitsNeeded;
         if (w == null)
             return "";
+        budget.output(w.length());
         StringBuilder out = new StringBuilder(w);
 
-        // Core LZW decompression loop
-        while (it.hasNext()) {
-            int k = it.next();
+        // Core LZW decompression loop - codes are read one by one, never stored
+        for (int i = 1; i < codeCount; i++) {
+            budget.work(1);
+            int k = readFixedBits(data, cursor, bitsNeeded);
+            cursor += bitsNeeded;
             // If k exists in dict, take it; else it's the special "w + firstChar(w)" case
-            String entry = dict.containsKey(k) ? dict.get(k) : (w + w.charAt(0));
+            // Check limits before anything is allocated for this step
+            String known = dict.get(k);
+            budget.phrase(known != null ? known.length() : w.length() + 1);
+            boolean grow = nextCode < codeLimit;
+            if (grow) {
+                budget.phrase(w.length() + 1);
+                budget.dictionary(dict.size() + 1L);
+            }
+            String entry = known != null ? known : (w + w.charAt(0));
+            budget.output(entry.length());
             out.append(entry);
             // Add new dictionary entry built from previous output and first char of current
             // entry
-            dict.put(nextCode++, w + entry.charAt(0));
+            if (grow)
+                dict.put(nextCode++, w + entry.charAt(0));
             w = entry;
         }
         return out.toString();
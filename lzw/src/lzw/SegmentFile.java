@@ -0,0 +1,221 @@
+package lzw;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * SegmentFile – appendable .lzw container:
+ * - header: "LZWS" + 2 byte name length + original name + 4 byte segment count + 8 byte end
+ * offset (where the next segment goes).
+ * - then segments one after another: 1 byte algorithm tag + 4 byte length + compressed bytes.
+ * - every segment starts with a fresh dictionary, so appending new data only compresses the new
+ * data; the old segments are never read or rewritten.
+ * - a segment with the REFERENCE tag holds only the 4 byte index of an earlier segment and
+ * repeats its decoded text (used by DedupCompressor for repeated chunks).
+ * - count and end offset are updated in place after the new segment is written, so an append
+ * that is cut in the middle leaves the file readable (the extra bytes are ignored).
+ */
+public class SegmentFile {
+
+    public static final byte ALG_REGULAR = 0;
+    public static final byte ALG_IMPROVED = 1;
+    public static final byte REFERENCE = 2;
+    public static final byte STORED = 3; // raw bytes, for data LZW can't shrink
+
+    private static final byte[] MAGIC = { 'L', 'Z', 'W', 'S' };
+    private static final int MAX_NAME = 65535;
+
+    // true if the data starts with the appendable container magic
+    public static boolean isSegmented(byte[] data) {
+        return data.length >= 6 && data[0] == MAGIC[0] && data[1] == MAGIC[1]
+                && data[2] == MAGIC[2] && data[3] == MAGIC[3];
+    }
+
+    // compress the text with the chosen algorithm
+    public static ByteArrayOutputStream compress(String text, byte algorithm) {
+        if (algorithm == STORED) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(text.length());
+            out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+            return out;
+        }
+        return algorithm == ALG_IMPROVED ? ImprovedLZW.Compress(text) : RegularLZW.Compress(text);
+    }
+
+    // decompress a single segment payload with the algorithm it was written with
+    public static String decompress(ByteArrayOutputStream compressed, byte algorithm) {
+        return decompress(compressed, algorithm, DecodeLimits.UNLIMITED.budget());
+    }
+
+    static String decompress(ByteArrayOutputStream compressed, byte algorithm, DecodeLimits.Budget budget) {
+        if (algorithm == STORED) {
+            budget.output(compressed.size());
+            return new String(compressed.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+        return algorithm == ALG_IMPROVED ? ImprovedLZW.Decompress(compressed, budget)
+                : ParallelRegularLZW.Decompress(compressed, budget);
+    }
+
+    // write a new container with one segment
+    public static void create(File file, String originalName, byte algorithm, ByteArrayOutputStream compressed)
+            throws IOException {
+        create(file, originalName, new byte[] { algorithm }, List.of(compressed.toByteArray()));
+    }
+
+    // write a new container with several segments (tags[i] belongs to payloads.get(i))
+    public static void create(File file, String originalName, byte[] tags, List<byte[]> payloads)
+            throws IOException {
+        byte[] nameBytes = originalName.getBytes(StandardCharsets.ISO_8859_1);
+        int length = Math.min(nameBytes.length, MAX_NAME);
+
+        long end = 6L + length + 12;
+        for (byte[] payload : payloads)
+            end += 5 + payload.length;
+
+        try (OutputStream fileOutStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            fileOutStream.write(MAGIC);
+            fileOutStream.write((length >>> 8) & 0xFF);
+            fileOutStream.write(length & 0xFF);
+            fileOutStream.write(nameBytes, 0, length);
+            fileOutStream.write(countAndEnd(payloads.size(), end));
+            for (int i = 0; i < payloads.size(); i++)
+                writeSegment(fileOutStream, tags[i], payloads.get(i));
+        }
+    }
+
+    // payload of a REFERENCE segment
+    public static byte[] reference(int segmentIndex) {
+        return intToBytes(segmentIndex);
+    }
+
+    // append one segment to an existing container - costs only the size of the new segment
+    public static void append(File file, byte algorithm, ByteArrayOutputStream compressed) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            byte[] start = new byte[6];
+            if (raf.length() < 6) {
+                throw new IOException("Not an appendable .lzw file: " + file);
+            }
+            raf.readFully(start);
+            if (!isSegmented(start)) {
+                throw new IOException("Not an appendable .lzw file: " + file);
+            }
+            int nameLength = ((start[4] & 0xFF) << 8) | (start[5] & 0xFF);
+            long countOffset = 6L + nameLength;
+            if (raf.length() < countOffset + 12) {
+                throw new IOException("Truncated .lzw header: " + file);
+            }
+
+            raf.seek(countOffset);
+            int count = raf.readInt();
+            long end = raf.readLong();
+            if (end < countOffset + 12 || end > raf.length()) {
+                throw new IOException("Corrupt .lzw header: " + file);
+            }
+
+            // first the data, then count + end - so a cut append is never visible
+            byte[] payload = compressed.toByteArray();
+            ByteArrayOutputStream segment = new ByteArrayOutputStream(payload.length + 5);
+            writeSegment(segment, algorithm, payload);
+            raf.seek(end);
+            raf.write(segment.toByteArray());
+            raf.setLength(end + segment.size()); // drop leftovers of an interrupted append
+
+            raf.seek(countOffset);
+            raf.write(countAndEnd(count + 1, end + segment.size())); // one write for both fields
+        }
+    }
+
+    // read the original file name stored in the container header
+    public static String readName(byte[] data) {
+        if (!isSegmented(data))
+            return null;
+        int nameLength = ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
+        if (data.length < 6 + nameLength)
+            return null;
+        return new String(data, 6, nameLength, StandardCharsets.ISO_8859_1);
+    }
+
+    // decompress all segments and concatenate them
+    public static String decompressAll(byte[] data) throws IOException {
+        return decompressAll(data, DecodeLimits.UNLIMITED);
+    }
+
+    // same, with one set of limits for the whole file (output is counted over all segments)
+    public static String decompressAll(byte[] data, DecodeLimits limits) throws IOException {
+        DecodeLimits.Budget budget = limits.budget();
+        if (!isSegmented(data)) {
+            throw new IOException("Not an appendable .lzw file");
+        }
+        int nameLength = ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
+        int cursor = 6 + nameLength;
+        if (data.length < cursor + 12) {
+            throw new IOException("Truncated .lzw header");
+        }
+        int count = bytesToInt(data, cursor);
+        cursor += 12; // count + end offset
+        // don't trust the header: every segment needs at least 5 bytes
+        if (count < 0 || count > (data.length - cursor) / 5) {
+            throw new IOException("Bad segment count " + count);
+        }
+
+        StringBuilder out = new StringBuilder();
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (data.length < cursor + 5) {
+                throw new IOException("Truncated segment " + i);
+            }
+            byte algorithm = data[cursor];
+            long length = bytesToInt(data, cursor + 1) & 0xFFFFFFFFL;
+            cursor += 5;
+            if (data.length - cursor < length) {
+                throw new IOException("Truncated segment " + i);
+            }
+            starts[i] = out.length();
+            if (algorithm == REFERENCE) { // repeat the text of an earlier segment
+                int target = length == 4 ? bytesToInt(data, cursor) : -1;
+                if (target < 0 || target >= i) {
+                    throw new IOException("Bad segment reference in segment " + i);
+                }
+                int targetEnd = target + 1 < i ? starts[target + 1] : starts[i];
+                budget.output(targetEnd - starts[target]);
+                out.append(out, starts[target], targetEnd);
+            } else {
+                ByteArrayOutputStream payload = new ByteArrayOutputStream((int) length);
+                payload.write(data, cursor, (int) length);
+                out.append(decompress(payload, algorithm, budget));
+            }
+            cursor += (int) length;
+        }
+        return out.toString();
+    }
+
+    private static void writeSegment(OutputStream out, byte algorithm, byte[] payload) throws IOException {
+        out.write(algorithm);
+        out.write(intToBytes(payload.length));
+        out.write(payload);
+    }
+
+    // 4 byte segment count + 8 byte end offset
+    private static byte[] countAndEnd(int count, long end) {
+        byte[] out = new byte[12];
+        System.arraycopy(intToBytes(count), 0, out, 0, 4);
+        System.arraycopy(intToBytes((int) (end >>> 32)), 0, out, 4, 4);
+        System.arraycopy(intToBytes((int) end), 0, out, 8, 4);
+        return out;
+    }
+
+    private static byte[] intToBytes(int value) {
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+    }
+
+    private static int bytesToInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}